@@ -0,0 +1,331 @@
+package com.prudencio.graphnodeview;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Lays out each connected component of a graph on its own, then packs the
+ * finished components into rows.
+ * <p>
+ * Nodes in different components never repel each other, so a step costs the
+ * sum of the squared component sizes instead of the square of the graph size.
+ * Every component uses the edge length of the whole graph, and has its own
+ * gravity centre that moves with it when packed, so packed components stay in
+ * place when they are stepped again.
+ * <p>
+ * Isolated nodes are not laid out; {@link #pack(double)} places them on a
+ * grid as one block. A connected graph is laid out directly, so the per-node
+ * heap cost is at most a few int arrays. The components are
+ * found again whenever the number of nodes or edges in the graph changes; call
+ * {@link #rebuild()} after other changes to the adjacency.
+ */
+public class ComponentLayout {
+    private static final double PADDING = 50;
+
+    private GraphStore graph;
+    private ForceDirectedGraph[] layouts;
+    private int[] groupNodes;
+    private int[] groupStarts;
+    private int[] groupOf;
+    private int groupCount;
+    private double kFactor;
+    private int nodeCount;
+    private int edgeCount;
+    private int iterations;
+
+    public ComponentLayout(GraphStore graph) {
+        super();
+        this.graph = graph;
+        rebuild();
+    }
+
+    /**
+     * Finds the components again. Each new component keeps the gravity
+     * centre of the old component its first node belonged to.
+     */
+    public void rebuild() {
+        ForceDirectedGraph[] oldLayouts = layouts;
+        int[] oldGroupOf = groupOf;
+
+        ConnectedComponents components = new ConnectedComponents(graph);
+        int size = graph.size();
+        nodeCount = size;
+        edgeCount = countEdges();
+
+        // Every component with edges gets a group and a layout of its own;
+        // isolated nodes are grouped together after them.
+        int[] groupOfComponent = new int[components.getComponentCount()];
+        int laidOut = 0;
+        boolean hasIsolated = false;
+        for (int c = 0; c < groupOfComponent.length; c++) {
+            if (components.getComponentSize(c) > 1) {
+                groupOfComponent[c] = laidOut++;
+            } else {
+                hasIsolated = true;
+            }
+        }
+        for (int c = 0; c < groupOfComponent.length; c++) {
+            if (components.getComponentSize(c) == 1) {
+                groupOfComponent[c] = laidOut;
+            }
+        }
+        int groups = hasIsolated ? laidOut + 1 : laidOut;
+        groupCount = groups;
+
+        kFactor = ForceDirectedGraph.kFactor(ForceDirectedGraph.DEFAULT_AREA, size);
+        layouts = new ForceDirectedGraph[laidOut];
+        if (groups <= 1) {
+            groupNodes = null;
+            groupStarts = null;
+            groupOf = null;
+            if (laidOut == 1) {
+                layouts[0] = new ForceDirectedGraph(graph);
+            }
+        } else {
+            groupOf = new int[size];
+            groupStarts = new int[groups + 1];
+            for (int v = 0; v < size; v++) {
+                groupOf[v] = groupOfComponent[components.getComponent(v)];
+                groupStarts[groupOf[v] + 1]++;
+            }
+            for (int g = 0; g < groups; g++) {
+                groupStarts[g + 1] += groupStarts[g];
+            }
+
+            groupNodes = new int[size];
+            int[] localIndexes = new int[size];
+            int[] filled = new int[groups];
+            for (int v = 0; v < size; v++) {
+                int g = groupOf[v];
+                localIndexes[v] = filled[g];
+                groupNodes[groupStarts[g] + filled[g]++] = v;
+            }
+            for (int g = 0; g < laidOut; g++) {
+                SubGraphStore store = new SubGraphStore(graph, groupNodes, groupStarts[g], groupSize(g), localIndexes);
+                layouts[g] = new ForceDirectedGraph(store);
+            }
+        }
+
+        for (int g = 0; g < laidOut; g++) {
+            layouts[g].setKFactor(kFactor);
+            if (oldLayouts != null) {
+                int first = groupNode(g, 0);
+                int oldGroup = oldGroupOf == null ? 0 : first < oldGroupOf.length ? oldGroupOf[first] : -1;
+                if (oldGroup >= 0 && oldGroup < oldLayouts.length) {
+                    layouts[g].setCenter(oldLayouts[oldGroup].getCenterX(), oldLayouts[oldGroup].getCenterY());
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs a single step on every component.
+     */
+    public void forcedBasedDrawing() {
+        checkStructure();
+        for (int c = 0; c < layouts.length; c++) {
+            layouts[c].forcedBasedDrawing();
+        }
+    }
+
+    /**
+     * Runs every component until it converges or reaches maxIterations.
+     *
+     * @return true if every component converged
+     */
+    public boolean layout(int maxIterations, double threshold) {
+        checkStructure();
+        iterations = 0;
+        boolean converged = true;
+        for (int c = 0; c < layouts.length; c++) {
+            iterations += layouts[c].layout(maxIterations, threshold);
+            converged &= layouts[c].isConverged();
+        }
+        return converged;
+    }
+
+    /**
+     * Same as {@link #layout(int, double)}, running the components
+     * concurrently on the given executor and waiting for all of them.
+     */
+    public boolean layout(final int maxIterations, final double threshold, ExecutorService executor)
+            throws InterruptedException {
+        checkStructure();
+        List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+        for (int c = 0; c < layouts.length; c++) {
+            final ForceDirectedGraph component = layouts[c];
+            tasks.add(new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    return component.layout(maxIterations, threshold);
+                }
+            });
+        }
+
+        List<Future<Integer>> results = executor.invokeAll(tasks);
+        iterations = 0;
+        boolean converged = true;
+        for (int c = 0; c < layouts.length; c++) {
+            try {
+                iterations += results.get(c).get();
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            }
+            converged &= layouts[c].isConverged();
+        }
+        return converged;
+    }
+
+    /**
+     * Moves the components into rows no wider than the given width, tallest
+     * first, with the top left corner of the first row at the origin. A
+     * component wider than the width gets a row of its own. Each component's
+     * gravity centre moves with it, so call this once the components have been
+     * laid out.
+     *
+     * @param width the row width; if not positive, a width giving a roughly
+     *              square result is used
+     */
+    public void pack(double width) {
+        checkStructure();
+        if (groupCount > layouts.length) {
+            arrangeIsolated(groupCount - 1);
+        }
+
+        final double[][] bounds = new double[groupCount][];
+        double area = 0;
+        double widest = 0;
+        for (int c = 0; c < groupCount; c++) {
+            bounds[c] = bounds(c);
+            double w = bounds[c][2] - bounds[c][0] + PADDING;
+            double h = bounds[c][3] - bounds[c][1] + PADDING;
+            area += w * h;
+            widest = Math.max(widest, w);
+        }
+        if (width <= 0) {
+            width = Math.max(widest, Math.sqrt(area));
+        }
+
+        Integer[] order = new Integer[groupCount];
+        for (int c = 0; c < order.length; c++) {
+            order[c] = c;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                double heightA = bounds[a][3] - bounds[a][1];
+                double heightB = bounds[b][3] - bounds[b][1];
+                if (heightA != heightB) {
+                    return heightA > heightB ? -1 : 1;
+                }
+                return a.compareTo(b);
+            }
+        });
+
+        double x = 0;
+        double y = 0;
+        double rowHeight = 0;
+        for (int i = 0; i < order.length; i++) {
+            int c = order[i];
+            double w = bounds[c][2] - bounds[c][0];
+            double h = bounds[c][3] - bounds[c][1];
+            if (x > 0 && x + w > width) {
+                x = 0;
+                y += rowHeight + PADDING;
+                rowHeight = 0;
+            }
+
+            double dx = x - bounds[c][0];
+            double dy = y - bounds[c][1];
+            translate(c, dx, dy);
+            if (c < layouts.length) {
+                layouts[c].setCenter(layouts[c].getCenterX() + dx, layouts[c].getCenterY() + dy);
+            }
+            x += w + PADDING;
+            rowHeight = Math.max(rowHeight, h);
+        }
+    }
+
+    /**
+     * @return the graph being laid out
+     */
+    public GraphStore getStore() {
+        return graph;
+    }
+
+    /**
+     * @return the number of groups of nodes that are packed independently;
+     * all isolated nodes form a single group
+     */
+    public int getComponentCount() {
+        return groupCount;
+    }
+
+    /**
+     * @return the number of steps run by the last call to layout, summed over
+     * all components
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    private void arrangeIsolated(int group) {
+        int columns = (int) Math.ceil(Math.sqrt(groupSize(group)));
+        for (int i = 0; i < groupSize(group); i++) {
+            int node = groupNode(group, i);
+            graph.setPosX(node, (i % columns) * kFactor);
+            graph.setPosY(node, (i / columns) * kFactor);
+        }
+    }
+
+    private void checkStructure() {
+        if (graph.size() != nodeCount || countEdges() != edgeCount) {
+            rebuild();
+        }
+    }
+
+    private int countEdges() {
+        int count = 0;
+        for (int v = 0; v < graph.size(); v++) {
+            count += graph.getAdjacentCount(v);
+        }
+        return count;
+    }
+
+    private int groupSize(int group) {
+        return groupStarts == null ? graph.size() : groupStarts[group + 1] - groupStarts[group];
+    }
+
+    private int groupNode(int group, int i) {
+        return groupNodes == null ? i : groupNodes[groupStarts[group] + i];
+    }
+
+    private double[] bounds(int group) {
+        double minX = Double.MAX_VALUE;
+        double minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE;
+        double maxY = -Double.MAX_VALUE;
+        for (int i = 0; i < groupSize(group); i++) {
+            int node = groupNode(group, i);
+            minX = Math.min(minX, graph.getPosX(node));
+            minY = Math.min(minY, graph.getPosY(node));
+            maxX = Math.max(maxX, graph.getPosX(node));
+            maxY = Math.max(maxY, graph.getPosY(node));
+        }
+        return new double[]{minX, minY, maxX, maxY};
+    }
+
+    private void translate(int group, double dx, double dy) {
+        for (int i = 0; i < groupSize(group); i++) {
+            int node = groupNode(group, i);
+            graph.setPosX(node, graph.getPosX(node) + dx);
+            graph.setPosY(node, graph.getPosY(node) + dy);
+        }
+    }
+}
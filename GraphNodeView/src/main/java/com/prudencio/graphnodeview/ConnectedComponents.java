@@ -0,0 +1,96 @@
+package com.prudencio.graphnodeview;
+
+/**
+ * Splits a graph into connected components with a union-find over its
+ * adjacency. Edges are treated as undirected, and edges to nodes outside the
+ * graph are ignored.
+ */
+public class ConnectedComponents {
+    private int[] componentOf;
+    private int[] sizes;
+
+    public ConnectedComponents(GraphStore graph) {
+        super();
+        int size = graph.size();
+        int[] parent = new int[size];
+        int[] rank = new int[size];
+        for (int i = 0; i < size; i++) {
+            parent[i] = i;
+        }
+
+        for (int v = 0; v < size; v++) {
+            for (int k = 0; k < graph.getAdjacentCount(v); k++) {
+                int adjacent = graph.getAdjacent(v, k);
+                if (adjacent < size) {
+                    union(parent, rank, v, adjacent);
+                }
+            }
+        }
+
+        // Number components in order of their first node, so ids are stable
+        // for the same graph.
+        componentOf = new int[size];
+        int[] componentOfRoot = new int[size];
+        int[] componentSizes = new int[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            componentOfRoot[i] = -1;
+        }
+        for (int v = 0; v < size; v++) {
+            int root = find(parent, v);
+            if (componentOfRoot[root] == -1) {
+                componentOfRoot[root] = count++;
+            }
+            componentOf[v] = componentOfRoot[root];
+            componentSizes[componentOf[v]]++;
+        }
+
+        sizes = new int[count];
+        System.arraycopy(componentSizes, 0, sizes, 0, count);
+    }
+
+    /**
+     * @return the number of components
+     */
+    public int getComponentCount() {
+        return sizes.length;
+    }
+
+    /**
+     * @return the component the given node belongs to
+     */
+    public int getComponent(int node) {
+        return componentOf[node];
+    }
+
+    /**
+     * @return the number of nodes in the given component
+     */
+    public int getComponentSize(int component) {
+        return sizes[component];
+    }
+
+    private static int find(int[] parent, int node) {
+        while (parent[node] != node) {
+            parent[node] = parent[parent[node]];
+            node = parent[node];
+        }
+        return node;
+    }
+
+    private static void union(int[] parent, int[] rank, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        if (rootA == rootB) {
+            return;
+        }
+        if (rank[rootA] < rank[rootB]) {
+            parent[rootA] = rootB;
+        } else if (rank[rootA] > rank[rootB]) {
+            parent[rootB] = rootA;
+        } else {
+            parent[rootB] = rootA;
+            rank[rootA]++;
+        }
+    }
+}
@@ -6,13 +6,18 @@ import java.util.Random;
 public class ForceDirectedGraph {
     private static final double SPEED_DIVISOR = 32;
     private static final double AREA_MULTIPLICATOR = 400;
-    private ArrayList<Node> graph;
+    static final float DEFAULT_AREA = 400;
+    private GraphStore graph;
     private float area;
     private double gravity;
     private double speed;
     private double maxDisplace;
     private double kFactor;
     private int nIterations;
+    private double lastDisplacement;
+    private boolean converged;
+    private double centerX;
+    private double centerY;
 
     public ForceDirectedGraph() {
         super();
@@ -21,22 +26,30 @@ public class ForceDirectedGraph {
 
 
     public ForceDirectedGraph(ArrayList<Node> graph) {
+        super();
+        this.graph = new NodeListStore(graph);
+        init();
+    }
+
+    public ForceDirectedGraph(GraphStore graph) {
         super();
         this.graph = graph;
         init();
     }
 
     public void init() {
-        generateComplexGraph();
+        if (graph == null) {
+            generateComplexGraph();
+        }
 
         nIterations = 100;
 
         speed = 1;
-        area = 400;
+        area = DEFAULT_AREA;
         gravity = 10;
 
         maxDisplace = (Math.sqrt(AREA_MULTIPLICATOR * area) / (double) 10.0);
-        kFactor = Math.sqrt((AREA_MULTIPLICATOR * area) / (double) (1.0 + graph.size()));
+        kFactor = kFactor(area, graph.size());
     }
 
     public void forcedBasedDrawing() {
@@ -44,23 +57,20 @@ public class ForceDirectedGraph {
             return;
 
         for (int i = 0; i < graph.size(); i++) {
-            Node nodeV = graph.get(i);
-            nodeV.setDispX(0);
-            nodeV.setDispY(0);
+            graph.setDispX(i, 0);
+            graph.setDispY(i, 0);
         }
 
         for (int r = 0; r < graph.size(); r++) {
-            Node nodeV = graph.get(r);
             for (int j = 0; j < graph.size(); j++) {
                 if (r != j) {
-                    Node nodeU = graph.get(j);
-                    double deltaPosX = nodeV.getPosX() - nodeU.getPosX();
-                    double deltaPosY = nodeV.getPosY() - nodeU.getPosY();
+                    double deltaPosX = graph.getPosX(r) - graph.getPosX(j);
+                    double deltaPosY = graph.getPosY(r) - graph.getPosY(j);
                     double magnitudeDelta = vectorMagnitude(deltaPosX, deltaPosY);
                     if (magnitudeDelta > 0) {
                         double rForce = forceRepulsive(magnitudeDelta);
-                        nodeV.setDispX(nodeV.getDispX() + deltaPosX / magnitudeDelta * rForce);
-                        nodeV.setDispY(nodeV.getDispY() + deltaPosY / magnitudeDelta * rForce);
+                        graph.setDispX(r, graph.getDispX(r) + deltaPosX / magnitudeDelta * rForce);
+                        graph.setDispY(r, graph.getDispY(r) + deltaPosY / magnitudeDelta * rForce);
                     }
                 }
             }
@@ -68,61 +78,91 @@ public class ForceDirectedGraph {
 
 
         for (int q = 0; q < graph.size(); q++) {
-            Node newNodeV = graph.get(q);
-
-            for (int k = 0; k < newNodeV.getAdjacentNodes().size(); k++) {
-                Node nodeU = newNodeV.getAdjacentNodes().get(k);
+            for (int k = 0; k < graph.getAdjacentCount(q); k++) {
+                int u = graph.getAdjacent(q, k);
 
-                double deltaPosX = newNodeV.getPosX() - nodeU.getPosX();
-                double deltaPosY = newNodeV.getPosY() - nodeU.getPosY();
+                double deltaPosX = graph.getPosX(q) - graph.getPosX(u);
+                double deltaPosY = graph.getPosY(q) - graph.getPosY(u);
                 double magnitudeDelta = vectorMagnitude(deltaPosX, deltaPosY);
 
                 if (magnitudeDelta > 0) {
                     double aForce = forceAttraction(magnitudeDelta);
-                    newNodeV.setDispX(newNodeV.getDispX() - deltaPosX / magnitudeDelta * aForce);
-                    newNodeV.setDispY(newNodeV.getDispY() - deltaPosY / magnitudeDelta * aForce);
-                    nodeU.setDispX(nodeU.getDispX() + deltaPosX / magnitudeDelta * aForce);
-                    nodeU.setDispY(nodeU.getDispY() + deltaPosY / magnitudeDelta * aForce);
+                    graph.setDispX(q, graph.getDispX(q) - deltaPosX / magnitudeDelta * aForce);
+                    graph.setDispY(q, graph.getDispY(q) - deltaPosY / magnitudeDelta * aForce);
+                    graph.setDispX(u, graph.getDispX(u) + deltaPosX / magnitudeDelta * aForce);
+                    graph.setDispY(u, graph.getDispY(u) + deltaPosY / magnitudeDelta * aForce);
                 }
             }
         }
 
 
         for (int d = 0; d < graph.size(); d++) {
-            Node newNodeV = graph.get(d);
-            double magnitudeDelta = vectorMagnitude(newNodeV.getDispX(), newNodeV.getDispY());
+            double magnitudeDelta = vectorMagnitude(graph.getDispX(d), graph.getDispY(d));
 
             if (magnitudeDelta > 0) {
                 double gf = 0.01f * kFactor * (double) gravity * d;
-                newNodeV.setDispX(newNodeV.getDispX() - gf * newNodeV.getPosX() / magnitudeDelta);
-                newNodeV.setDispY(newNodeV.getDispY() - gf * newNodeV.getPosY() / magnitudeDelta);
+                graph.setDispX(d, graph.getDispX(d) - gf * (graph.getPosX(d) - centerX) / magnitudeDelta);
+                graph.setDispY(d, graph.getDispY(d) - gf * (graph.getPosY(d) - centerY) / magnitudeDelta);
             }
         }
 
 
         for (int u = 0; u < graph.size(); u++) {
-            Node newNodeV = graph.get(u);
-            newNodeV.setDispX(newNodeV.getDispX() * speed / SPEED_DIVISOR);
-            newNodeV.setDispY(newNodeV.getDispY() * speed / SPEED_DIVISOR);
+            graph.setDispX(u, graph.getDispX(u) * speed / SPEED_DIVISOR);
+            graph.setDispY(u, graph.getDispY(u) * speed / SPEED_DIVISOR);
         }
 
 
+        lastDisplacement = 0;
         for (int p = 0; p < graph.size(); p++) {
-            Node newNodeV = graph.get(p);
-            double magnitudeDelta = vectorMagnitude(newNodeV.getDispX(), newNodeV.getDispY());
+            double magnitudeDelta = vectorMagnitude(graph.getDispX(p), graph.getDispY(p));
 
             if (magnitudeDelta > 0) {
                 double limitedDist = Math.min(magnitudeDelta, maxDisplace * ((double) speed / SPEED_DIVISOR));
 
-                if (!newNodeV.isDragged()) {
-                    newNodeV.setPosX(newNodeV.getPosX() + newNodeV.getDispX() * limitedDist );
-                    newNodeV.setPosY(newNodeV.getPosY() + newNodeV.getDispY() * limitedDist );
+                if (!graph.isDragged(p)) {
+                    graph.setPosX(p, graph.getPosX(p) + graph.getDispX(p) * limitedDist );
+                    graph.setPosY(p, graph.getPosY(p) + graph.getDispY(p) * limitedDist );
+                    lastDisplacement = Math.max(lastDisplacement, magnitudeDelta * limitedDist);
                 }
             }
 
         }
     }
 
+    /**
+     * Runs {@link #forcedBasedDrawing()} until no node moves more than the
+     * threshold, or until maxIterations steps have been run.
+     *
+     * @return the number of steps run
+     * @see #isConverged()
+     */
+    public int layout(int maxIterations, double threshold) {
+        int iterations = 0;
+        converged = false;
+        while (iterations < maxIterations && !converged) {
+            forcedBasedDrawing();
+            iterations++;
+            converged = lastDisplacement < threshold;
+        }
+        return iterations;
+    }
+
+    /**
+     * @return whether the last call to {@link #layout(int, double)} settled
+     * below its threshold
+     */
+    public boolean isConverged() {
+        return converged;
+    }
+
+    /**
+     * @return the ideal edge length for a graph of the given size
+     */
+    static double kFactor(double area, int size) {
+        return Math.sqrt((AREA_MULTIPLICATOR * area) / (1.0 + size));
+    }
+
     private double forceAttraction(double x) {
         return (x * x) / kFactor;
     }
@@ -136,21 +176,75 @@ public class ForceDirectedGraph {
     }
 
     /**
-     * @return the graph
+     * @return the largest distance a node moved in the last call to
+     * {@link #forcedBasedDrawing()}
+     */
+    public double getLastDisplacement() {
+        return lastDisplacement;
+    }
+
+    public double getKFactor() {
+        return kFactor;
+    }
+
+    /**
+     * @param kFactor the ideal edge length; set it to lay out part of a graph
+     *                at the same scale as the whole
+     */
+    public void setKFactor(double kFactor) {
+        this.kFactor = kFactor;
+    }
+
+    /**
+     * Sets the point gravity pulls the nodes towards, (0, 0) by default.
+     */
+    public void setCenter(double centerX, double centerY) {
+        this.centerX = centerX;
+        this.centerY = centerY;
+    }
+
+    public double getCenterX() {
+        return centerX;
+    }
+
+    public double getCenterY() {
+        return centerY;
+    }
+
+    /**
+     * @return the graph, or null if it is not backed by a list of nodes
      */
     public ArrayList<Node> getGraph() {
-        return graph;
+        if (graph instanceof NodeListStore) {
+            return ((NodeListStore) graph).getNodes();
+        }
+        return null;
     }
 
     /**
      * @param graph the graph to set
      */
     public void setGraph(ArrayList<Node> graph) {
+        setStore(new NodeListStore(graph));
+    }
+
+    /**
+     * @return the store backing the graph
+     */
+    public GraphStore getStore() {
+        return graph;
+    }
+
+    /**
+     * @param graph the store to set
+     */
+    public void setStore(GraphStore graph) {
         this.graph = graph;
+        kFactor = kFactor(area, graph.size());
     }
 
     public void generateComplexGraph() {
-        graph = new ArrayList<Node>();
+        ArrayList<Node> graph = new ArrayList<Node>();
         Random rand = new Random();
 
         for (int i = 0; i < 17; i++) {
@@ -194,6 +288,8 @@ public class ForceDirectedGraph {
         adjacentNodes3.add(graph.get(15));
         adjacentNodes3.add(graph.get(16));
         node3.setAdjacentNodes(adjacentNodes3);
+
+        this.graph = new NodeListStore(graph);
     }
 
 
@@ -0,0 +1,54 @@
+package com.prudencio.graphnodeview;
+
+/**
+ * Index based view of a graph, as consumed by {@link ForceDirectedGraph}.
+ * Nodes are addressed by their position in the store (0 to size() - 1).
+ * <p>
+ * A store may return adjacent indexes of size() or more for nodes outside the
+ * graph. Those indexes can be passed to the accessors, but are not part of the
+ * layout.
+ */
+public interface GraphStore {
+
+    /**
+     * @return the number of nodes
+     */
+    int size();
+
+    int getId(int node);
+
+    double getPosX(int node);
+
+    void setPosX(int node, double posX);
+
+    double getPosY(int node);
+
+    void setPosY(int node, double posY);
+
+    double getDispX(int node);
+
+    void setDispX(int node, double dispX);
+
+    double getDispY(int node);
+
+    void setDispY(int node, double dispY);
+
+    boolean isDragged(int node);
+
+    void setDragged(int node, boolean isDragged);
+
+    /**
+     * @return the number of nodes adjacent to the given node
+     */
+    int getAdjacentCount(int node);
+
+    /**
+     * @return the index of the k-th node adjacent to the given node, which is
+     * size() or more if that node is outside the graph
+     */
+    int getAdjacent(int node, int k);
+
+    String getName(int node);
+
+    String getLocation(int node);
+}
@@ -25,12 +25,10 @@ import android.view.MotionEvent;
 import android.view.ScaleGestureDetector;
 import android.view.View;
 
-import java.util.ArrayList;
-
 public class GraphView extends View {
     private static final int INVALID_POINTER_ID = -1;
     public Bitmap defaultPhoto;
-    private ForceDirectedGraph graph;
+    private ComponentLayout graph;
     private Paint mCirclePaint;
     private float mPosX;
     private float mPosY;
@@ -62,7 +60,33 @@ public class GraphView extends View {
         mCirclePaint.setTextAlign(Paint.Align.CENTER);
 
 
-        graph = new ForceDirectedGraph();
+        graph = new ComponentLayout(new ForceDirectedGraph().getStore());
+    }
+
+    /**
+     * Packs the components of the given graph into the view once, then lays
+     * out and draws each component on its own. The graph is expected to be
+     * laid out already, for example by {@link LayoutJobService}.
+     *
+     * @param store the graph to lay out and draw
+     */
+    public void setGraphStore(GraphStore store) {
+        graph = new ComponentLayout(store);
+        packToViewport();
+        mNodeSelected = -1;
+        invalidate();
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        packToViewport();
+    }
+
+    private void packToViewport() {
+        if (getWidth() > 0) {
+            graph.pack(getWidth() / mScaleFactor);
+        }
     }
 
     @Override
@@ -78,26 +102,23 @@ public class GraphView extends View {
         setBackgroundColor(Color.WHITE);
 
 
-        for (int k = 0; k < graph.getGraph().size(); k++) {
-            Node node = graph.getGraph().get(k);
-
-            mCirclePaint.setColor(Color.GRAY);
-            ArrayList<Node> adjacents = node.getAdjacentNodes();
-            for (int r = 0; r < adjacents.size(); r++) {
-                Node destNode = adjacents.get(r);
-                canvas.drawLine((float) node.getPosX(), (float) node.getPosY(), (float) destNode.getPosX(), (float) destNode.getPosY(), mCirclePaint);
+        GraphStore store = graph.getStore();
+        mCirclePaint.setColor(Color.GRAY);
+        for (int k = 0; k < store.size(); k++) {
+            for (int r = 0; r < store.getAdjacentCount(k); r++) {
+                int dest = store.getAdjacent(k, r);
+                canvas.drawLine((float) store.getPosX(k), (float) store.getPosY(k), (float) store.getPosX(dest), (float) store.getPosY(dest), mCirclePaint);
             }
         }
 
-        for (int i = 0; i < graph.getGraph().size(); i++) {
-            Node node = graph.getGraph().get(i);
+        for (int i = 0; i < store.size(); i++) {
             mCirclePaint.setColor(Color.RED);
 
-            canvas.drawBitmap(defaultPhoto, (float) node.getPosX() - defaultPhoto.getWidth() / 2.0F, (float) node.getPosY() - defaultPhoto.getHeight() / 2.0F, mCirclePaint);
+            canvas.drawBitmap(defaultPhoto, (float) store.getPosX(i) - defaultPhoto.getWidth() / 2.0F, (float) store.getPosY(i) - defaultPhoto.getHeight() / 2.0F, mCirclePaint);
 
             mCirclePaint.setColor(Color.BLACK);
             mCirclePaint.setTextSize(20);
-            canvas.drawText(node.getName(), (float) node.getPosX(), (float) node.getPosY() + 30 + 20, mCirclePaint);
+            canvas.drawText(store.getName(i), (float) store.getPosX(i), (float) store.getPosY(i) + 30 + 20, mCirclePaint);
         }
 
         canvas.restore();
@@ -116,11 +137,11 @@ public class GraphView extends View {
                 final float x = ev.getX();
                 final float y = ev.getY();
 
-                for (int i = 0; i < graph.getGraph().size(); i++) {
-                    Node node = graph.getGraph().get(i);
-                    if (inCircle(x, y, mPosX + (float) node.getPosX() * mScaleFactor, mPosY + (float) node.getPosY() * mScaleFactor, 50 * mScaleFactor)) {
+                GraphStore store = graph.getStore();
+                for (int i = 0; i < store.size(); i++) {
+                    if (inCircle(x, y, mPosX + (float) store.getPosX(i) * mScaleFactor, mPosY + (float) store.getPosY(i) * mScaleFactor, 50 * mScaleFactor)) {
                         mNodeSelected = i;
-                        node.setDragged(true);
+                        store.setDragged(i, true);
                         break;
                     }
                 }
@@ -144,9 +165,9 @@ public class GraphView extends View {
                     final float dy = y - mLastTouchY;
 
                     if (mNodeSelected > -1) {
-                        Node node = graph.getGraph().get(mNodeSelected);
-                        node.setPosX(node.getPosX() + dx);
-                        node.setPosY(node.getPosY() + dy);
+                        GraphStore store = graph.getStore();
+                        store.setPosX(mNodeSelected, store.getPosX(mNodeSelected) + dx);
+                        store.setPosY(mNodeSelected, store.getPosY(mNodeSelected) + dy);
                     } else {
                         mPosX += dx;
                         mPosY += dy;
@@ -164,8 +185,7 @@ public class GraphView extends View {
             case MotionEvent.ACTION_UP: {
                 mActivePointerId = INVALID_POINTER_ID;
                 if (mNodeSelected != -1) {
-                    Node node = graph.getGraph().get(mNodeSelected);
-                    node.setDragged(false);
+                    graph.getStore().setDragged(mNodeSelected, false);
                 }
 
                 mNodeSelected = -1;
@@ -175,8 +195,7 @@ public class GraphView extends View {
             case MotionEvent.ACTION_CANCEL: {
                 mActivePointerId = INVALID_POINTER_ID;
                 if (mNodeSelected != -1) {
-                    Node node = graph.getGraph().get(mNodeSelected);
-                    node.setDragged(false);
+                    graph.getStore().setDragged(mNodeSelected, false);
                 }
                 mNodeSelected = -1;
                 break;
@@ -185,8 +204,7 @@ public class GraphView extends View {
             case MotionEvent.ACTION_POINTER_UP: {
 
                 if (mNodeSelected != -1) {
-                    Node node = graph.getGraph().get(mNodeSelected);
-                    node.setDragged(false);
+                    graph.getStore().setDragged(mNodeSelected, false);
                 }
 
                 mNodeSelected = -1;
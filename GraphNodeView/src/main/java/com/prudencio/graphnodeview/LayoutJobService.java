@@ -0,0 +1,260 @@
+package com.prudencio.graphnodeview;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Headless executor that lays out many graphs in parallel, off the UI thread.
+ * <p>
+ * Each submitted graph is run through {@link ForceDirectedGraph} on a fixed
+ * pool of worker threads until no node moves more than the convergence
+ * threshold, or until the iteration limit is reached. Finished layouts are
+ * handed to the {@link LayoutListener} on the worker thread that computed them.
+ * A graph whose layout throws a RuntimeException is reported through
+ * {@link LayoutListener#onLayoutFailed(int, GraphStore, Throwable)} instead.
+ * <p>
+ * With {@link #setPartitionComponents(boolean)}, each connected component is
+ * laid out on its own and the components are packed into rows afterwards.
+ */
+public class LayoutJobService {
+    private static final int DEFAULT_MAX_ITERATIONS = 1000;
+    private static final double DEFAULT_CONVERGENCE_THRESHOLD = 0.1;
+
+    private ExecutorService executor;
+    private LayoutListener listener;
+    private volatile int maxIterations;
+    private volatile double convergenceThreshold;
+    private volatile boolean partitionComponents;
+    private volatile double packWidth;
+
+    private AtomicInteger nextJobId;
+    private AtomicInteger submittedCount;
+    private AtomicInteger completedCount;
+    private AtomicInteger convergedCount;
+    private AtomicInteger failedCount;
+    private AtomicLong iterationCount;
+    private AtomicLong busyNanos;
+    private AtomicLong startNanos;
+
+    /**
+     * Receives each finished or failed layout. Called from a worker thread.
+     */
+    public interface LayoutListener {
+        /**
+         * @param jobId      the id returned by {@link #submit(GraphStore)}
+         * @param graph      the graph, with its final positions
+         * @param iterations the number of iterations that were run
+         * @param converged  whether the layout settled before the iteration limit
+         */
+        void onLayoutFinished(int jobId, GraphStore graph, int iterations, boolean converged);
+
+        /**
+         * @param jobId the id returned by {@link #submit(GraphStore)}
+         * @param graph the graph, with the positions it had when the layout failed
+         * @param error what the layout threw
+         */
+        void onLayoutFailed(int jobId, GraphStore graph, Throwable error);
+    }
+
+    public LayoutJobService(LayoutListener listener) {
+        this(Runtime.getRuntime().availableProcessors(), listener);
+    }
+
+    public LayoutJobService(int nThreads, LayoutListener listener) {
+        super();
+        this.executor = Executors.newFixedThreadPool(nThreads);
+        this.listener = listener;
+        this.maxIterations = DEFAULT_MAX_ITERATIONS;
+        this.convergenceThreshold = DEFAULT_CONVERGENCE_THRESHOLD;
+
+        nextJobId = new AtomicInteger();
+        submittedCount = new AtomicInteger();
+        completedCount = new AtomicInteger();
+        convergedCount = new AtomicInteger();
+        failedCount = new AtomicInteger();
+        iterationCount = new AtomicLong();
+        busyNanos = new AtomicLong();
+        startNanos = new AtomicLong();
+    }
+
+    /**
+     * Queues a graph for layout.
+     *
+     * @return the id passed back to the listener for this graph
+     * @throws RejectedExecutionException if the service has been shut down
+     */
+    public int submit(final GraphStore graph) {
+        final int jobId = nextJobId.getAndIncrement();
+        long now = System.nanoTime();
+        boolean first = startNanos.compareAndSet(0, now);
+        submittedCount.incrementAndGet();
+
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    runJob(jobId, graph);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            submittedCount.decrementAndGet();
+            if (first) {
+                startNanos.compareAndSet(now, 0);
+            }
+            throw e;
+        }
+        return jobId;
+    }
+
+    private void runJob(int jobId, GraphStore graph) {
+        long start = System.nanoTime();
+        int limit = maxIterations;
+        double threshold = convergenceThreshold;
+
+        int iterations;
+        boolean converged;
+        try {
+            if (partitionComponents) {
+                ComponentLayout layout = new ComponentLayout(graph);
+                converged = layout.layout(limit, threshold);
+                iterations = layout.getIterations();
+                layout.pack(packWidth);
+            } else {
+                ForceDirectedGraph layout = new ForceDirectedGraph(graph);
+                iterations = layout.layout(limit, threshold);
+                converged = layout.isConverged();
+            }
+        } catch (RuntimeException e) {
+            busyNanos.addAndGet(System.nanoTime() - start);
+            failedCount.incrementAndGet();
+            if (listener != null) {
+                listener.onLayoutFailed(jobId, graph, e);
+            }
+            return;
+        }
+
+        iterationCount.addAndGet(iterations);
+        busyNanos.addAndGet(System.nanoTime() - start);
+        if (converged) {
+            convergedCount.incrementAndGet();
+        }
+        completedCount.incrementAndGet();
+
+        if (listener != null) {
+            listener.onLayoutFinished(jobId, graph, iterations, converged);
+        }
+    }
+
+    /**
+     * Stops accepting new graphs. Queued graphs are still laid out.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Blocks until all queued graphs are laid out after {@link #shutdown()}.
+     *
+     * @return true if all work finished before the timeout
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return executor.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * @return the number of graphs laid out per second since the first submit
+     */
+    public double getGraphsPerSecond() {
+        long start = startNanos.get();
+        if (start == 0) {
+            return 0;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        return seconds > 0 ? completedCount.get() / seconds : 0;
+    }
+
+    /**
+     * @return the number of graphs laid out per second of wall-clock time spent
+     * in worker threads; this is not CPU time, so it drops when there are more
+     * workers than cores
+     */
+    public double getGraphsPerWorkerSecond() {
+        double seconds = busyNanos.get() / 1e9;
+        return seconds > 0 ? completedCount.get() / seconds : 0;
+    }
+
+    public int getSubmittedCount() {
+        return submittedCount.get();
+    }
+
+    public int getCompletedCount() {
+        return completedCount.get();
+    }
+
+    public int getConvergedCount() {
+        return convergedCount.get();
+    }
+
+    public int getFailedCount() {
+        return failedCount.get();
+    }
+
+    public long getIterationCount() {
+        return iterationCount.get();
+    }
+
+    public long getBusyNanos() {
+        return busyNanos.get();
+    }
+
+    public int getMaxIterations() {
+        return maxIterations;
+    }
+
+    /**
+     * @param maxIterations the iteration limit for graphs that do not converge
+     */
+    public void setMaxIterations(int maxIterations) {
+        this.maxIterations = maxIterations;
+    }
+
+    public double getConvergenceThreshold() {
+        return convergenceThreshold;
+    }
+
+    /**
+     * @param convergenceThreshold the largest node movement, in pixels, at which
+     *                             a layout is considered settled
+     */
+    public void setConvergenceThreshold(double convergenceThreshold) {
+        this.convergenceThreshold = convergenceThreshold;
+    }
+
+    public boolean isPartitionComponents() {
+        return partitionComponents;
+    }
+
+    /**
+     * @param partitionComponents whether to lay out each connected component
+     *                            on its own and pack the results
+     */
+    public void setPartitionComponents(boolean partitionComponents) {
+        this.partitionComponents = partitionComponents;
+    }
+
+    public double getPackWidth() {
+        return packWidth;
+    }
+
+    /**
+     * @param packWidth the row width used to pack components; if not positive,
+     *                  a width giving a roughly square result is used
+     */
+    public void setPackWidth(double packWidth) {
+        this.packWidth = packWidth;
+    }
+}
@@ -0,0 +1,147 @@
+package com.prudencio.graphnodeview;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+/**
+ * {@link GraphStore} backed by a list of {@link Node} objects.
+ * <p>
+ * The list may be changed between calls; indexes are looked up again when it
+ * does. Adjacent nodes that are not in the list get indexes from size()
+ * upwards, which stay valid until the list changes.
+ */
+public class NodeListStore implements GraphStore {
+    private ArrayList<Node> nodes;
+    private IdentityHashMap<Node, Integer> indexes;
+    private ArrayList<Node> externalNodes;
+    private int indexedSize;
+
+    public NodeListStore(ArrayList<Node> nodes) {
+        super();
+        this.nodes = nodes;
+        this.indexes = new IdentityHashMap<Node, Integer>();
+        this.externalNodes = new ArrayList<Node>();
+        reindex();
+    }
+
+    /**
+     * @return the backing nodes
+     */
+    public ArrayList<Node> getNodes() {
+        return nodes;
+    }
+
+    @Override
+    public int size() {
+        return nodes.size();
+    }
+
+    @Override
+    public int getId(int node) {
+        return node(node).getId();
+    }
+
+    @Override
+    public double getPosX(int node) {
+        return node(node).getPosX();
+    }
+
+    @Override
+    public void setPosX(int node, double posX) {
+        node(node).setPosX(posX);
+    }
+
+    @Override
+    public double getPosY(int node) {
+        return node(node).getPosY();
+    }
+
+    @Override
+    public void setPosY(int node, double posY) {
+        node(node).setPosY(posY);
+    }
+
+    @Override
+    public double getDispX(int node) {
+        return node(node).getDispX();
+    }
+
+    @Override
+    public void setDispX(int node, double dispX) {
+        node(node).setDispX(dispX);
+    }
+
+    @Override
+    public double getDispY(int node) {
+        return node(node).getDispY();
+    }
+
+    @Override
+    public void setDispY(int node, double dispY) {
+        node(node).setDispY(dispY);
+    }
+
+    @Override
+    public boolean isDragged(int node) {
+        return node(node).isDragged();
+    }
+
+    @Override
+    public void setDragged(int node, boolean isDragged) {
+        node(node).setDragged(isDragged);
+    }
+
+    @Override
+    public int getAdjacentCount(int node) {
+        return node(node).getAdjacentNodes().size();
+    }
+
+    @Override
+    public int getAdjacent(int node, int k) {
+        Node adjacent = node(node).getAdjacentNodes().get(k);
+        Integer index = indexes.get(adjacent);
+        if (isStale(adjacent, index)) {
+            reindex();
+            index = indexes.get(adjacent);
+        }
+        if (index == null) {
+            index = nodes.size() + externalNodes.size();
+            externalNodes.add(adjacent);
+            indexes.put(adjacent, index);
+        }
+        return index;
+    }
+
+    @Override
+    public String getName(int node) {
+        return node(node).getName();
+    }
+
+    @Override
+    public String getLocation(int node) {
+        return node(node).getLocation();
+    }
+
+    private Node node(int index) {
+        if (index < nodes.size()) {
+            return nodes.get(index);
+        }
+        return externalNodes.get(index - nodes.size());
+    }
+
+    private boolean isStale(Node node, Integer index) {
+        if (nodes.size() != indexedSize) {
+            return true;
+        }
+        return index != null && index < nodes.size() && nodes.get(index) != node;
+    }
+
+    private void reindex() {
+        indexes.clear();
+        externalNodes.clear();
+        for (int i = 0; i < nodes.size(); i++) {
+            indexes.put(nodes.get(i), i);
+        }
+        indexedSize = nodes.size();
+    }
+}
@@ -0,0 +1,392 @@
+package com.prudencio.graphnodeview;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+/**
+ * {@link GraphStore} that keeps node state, adjacency and labels in direct
+ * buffers, so the heap footprint does not grow with the number of nodes.
+ * <p>
+ * Edges are stored in compressed rows and must be added grouped by source
+ * node, in ascending source order. Labels are interned through an
+ * open-addressing table that is also kept off-heap: equal names and locations
+ * share the same bytes in the label pool. Decoded labels are kept in a small,
+ * fixed-size cache so drawing does not decode them on every frame.
+ * <p>
+ * Nodes outside the graph that are only reached through edges are kept in
+ * extra slots after the last node, with indexes from size() upwards.
+ */
+public class OffHeapGraphStore implements GraphStore {
+    private static final String CHARSET = "UTF-8";
+
+    private static final int POS_X = 0;
+    private static final int POS_Y = 8;
+    private static final int DISP_X = 16;
+    private static final int DISP_Y = 24;
+    private static final int ID = 32;
+    private static final int FLAGS = 36;
+    private static final int NAME = 40;
+    private static final int LOCATION = 44;
+    private static final int NODE_BYTES = 48;
+
+    private static final int FLAG_DRAGGED = 1;
+
+    private static final int LABEL_SLOTS = 64;
+    private static final int LABEL_CACHE_SIZE = 256;
+
+    private static final String DEFAULT_NAME = "John";
+    private static final String DEFAULT_LOCATION = "Porto";
+
+    private int nodeCount;
+    private int slotCount;
+    private int edgeCount;
+    private int lastSource;
+    private ByteBuffer nodes;
+    private ByteBuffer edgeOffsets;
+    private ByteBuffer edges;
+    private ByteBuffer labels;
+    private ByteBuffer labelTable;
+    private int labelCount;
+    private LabelEntry[] labelCache;
+
+    /**
+     * @param nodeCount    the number of nodes in the graph
+     * @param edgeCapacity the maximum number of edges that will be added
+     * @param labelBytes   the initial size of the label pool, in bytes
+     */
+    public OffHeapGraphStore(int nodeCount, int edgeCapacity, int labelBytes) {
+        this(nodeCount, 0, edgeCapacity, labelBytes);
+    }
+
+    /**
+     * @param nodeCount     the number of nodes in the graph
+     * @param externalCount the number of extra slots for nodes outside the graph
+     * @param edgeCapacity  the maximum number of edges that will be added
+     * @param labelBytes    the initial size of the label pool, in bytes
+     * @throws IllegalArgumentException if a count is negative or the buffers
+     *                                  would exceed 2 GB
+     */
+    public OffHeapGraphStore(int nodeCount, int externalCount, int edgeCapacity, int labelBytes) {
+        super();
+        if (nodeCount < 0 || externalCount < 0 || edgeCapacity < 0) {
+            throw new IllegalArgumentException("Counts must not be negative");
+        }
+        long slots = (long) nodeCount + externalCount;
+        if (slots * NODE_BYTES > Integer.MAX_VALUE || (slots + 1) * 4 > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many nodes for one store: " + slots
+                    + ", at most " + Integer.MAX_VALUE / NODE_BYTES);
+        }
+        if ((long) edgeCapacity * 4 > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many edges for one store: " + edgeCapacity
+                    + ", at most " + Integer.MAX_VALUE / 4);
+        }
+
+        this.nodeCount = nodeCount;
+        this.slotCount = (int) slots;
+        nodes = ByteBuffer.allocateDirect(slotCount * NODE_BYTES).order(ByteOrder.nativeOrder());
+        edgeOffsets = ByteBuffer.allocateDirect((slotCount + 1) * 4).order(ByteOrder.nativeOrder());
+        edges = ByteBuffer.allocateDirect(edgeCapacity * 4).order(ByteOrder.nativeOrder());
+        labels = ByteBuffer.allocateDirect(Math.max(labelBytes, 64)).order(ByteOrder.nativeOrder());
+        labelTable = ByteBuffer.allocateDirect(LABEL_SLOTS * 4).order(ByteOrder.nativeOrder());
+        labelCache = new LabelEntry[LABEL_CACHE_SIZE];
+
+        int name = internLabel(DEFAULT_NAME);
+        int location = internLabel(DEFAULT_LOCATION);
+        for (int i = 0; i < slotCount; i++) {
+            nodes.putInt(i * NODE_BYTES + ID, i);
+            nodes.putInt(i * NODE_BYTES + NAME, name);
+            nodes.putInt(i * NODE_BYTES + LOCATION, location);
+        }
+    }
+
+    /**
+     * Copies a list of nodes into a new off-heap store. Adjacent nodes that are
+     * not in the list are copied into extra slots, as {@link NodeListStore}
+     * would index them.
+     */
+    public static OffHeapGraphStore fromNodes(ArrayList<Node> graph) {
+        IdentityHashMap<Node, Integer> indexes = new IdentityHashMap<Node, Integer>();
+        for (int i = 0; i < graph.size(); i++) {
+            indexes.put(graph.get(i), i);
+        }
+
+        ArrayList<Node> slots = new ArrayList<Node>(graph);
+        int edgeCount = 0;
+        for (int i = 0; i < graph.size(); i++) {
+            ArrayList<Node> adjacents = graph.get(i).getAdjacentNodes();
+            edgeCount += adjacents.size();
+            for (int k = 0; k < adjacents.size(); k++) {
+                if (!indexes.containsKey(adjacents.get(k))) {
+                    indexes.put(adjacents.get(k), slots.size());
+                    slots.add(adjacents.get(k));
+                }
+            }
+        }
+
+        OffHeapGraphStore store = new OffHeapGraphStore(graph.size(), slots.size() - graph.size(), edgeCount, 64);
+        for (int i = 0; i < slots.size(); i++) {
+            Node node = slots.get(i);
+            store.setId(i, node.getId());
+            store.setPosX(i, node.getPosX());
+            store.setPosY(i, node.getPosY());
+            store.setDragged(i, node.isDragged());
+            store.setName(i, node.getName());
+            store.setLocation(i, node.getLocation());
+        }
+        for (int i = 0; i < graph.size(); i++) {
+            ArrayList<Node> adjacents = graph.get(i).getAdjacentNodes();
+            for (int k = 0; k < adjacents.size(); k++) {
+                store.addEdge(i, indexes.get(adjacents.get(k)));
+            }
+        }
+        return store;
+    }
+
+    /**
+     * Adds an edge from source to target. Edges must be added in ascending
+     * source order.
+     */
+    public void addEdge(int source, int target) {
+        checkNode(source);
+        checkNode(target);
+        if (source < lastSource) {
+            throw new IllegalArgumentException("Edges must be added in ascending source order");
+        }
+        if (edgeCount == edges.capacity() / 4) {
+            throw new IllegalStateException("Edge capacity exceeded");
+        }
+        for (int i = lastSource + 1; i <= source; i++) {
+            edgeOffsets.putInt(i * 4, edgeCount);
+        }
+        lastSource = source;
+        edges.putInt(edgeCount * 4, target);
+        edgeCount++;
+    }
+
+    public void setId(int node, int id) {
+        nodes.putInt(node * NODE_BYTES + ID, id);
+    }
+
+    public void setName(int node, String name) {
+        nodes.putInt(node * NODE_BYTES + NAME, internLabel(name));
+    }
+
+    public void setLocation(int node, String location) {
+        nodes.putInt(node * NODE_BYTES + LOCATION, internLabel(location));
+    }
+
+    @Override
+    public int size() {
+        return nodeCount;
+    }
+
+    @Override
+    public int getId(int node) {
+        return nodes.getInt(node * NODE_BYTES + ID);
+    }
+
+    @Override
+    public double getPosX(int node) {
+        return nodes.getDouble(node * NODE_BYTES + POS_X);
+    }
+
+    @Override
+    public void setPosX(int node, double posX) {
+        nodes.putDouble(node * NODE_BYTES + POS_X, posX);
+    }
+
+    @Override
+    public double getPosY(int node) {
+        return nodes.getDouble(node * NODE_BYTES + POS_Y);
+    }
+
+    @Override
+    public void setPosY(int node, double posY) {
+        nodes.putDouble(node * NODE_BYTES + POS_Y, posY);
+    }
+
+    @Override
+    public double getDispX(int node) {
+        return nodes.getDouble(node * NODE_BYTES + DISP_X);
+    }
+
+    @Override
+    public void setDispX(int node, double dispX) {
+        nodes.putDouble(node * NODE_BYTES + DISP_X, dispX);
+    }
+
+    @Override
+    public double getDispY(int node) {
+        return nodes.getDouble(node * NODE_BYTES + DISP_Y);
+    }
+
+    @Override
+    public void setDispY(int node, double dispY) {
+        nodes.putDouble(node * NODE_BYTES + DISP_Y, dispY);
+    }
+
+    @Override
+    public boolean isDragged(int node) {
+        return (nodes.getInt(node * NODE_BYTES + FLAGS) & FLAG_DRAGGED) != 0;
+    }
+
+    @Override
+    public void setDragged(int node, boolean isDragged) {
+        int flags = nodes.getInt(node * NODE_BYTES + FLAGS);
+        flags = isDragged ? flags | FLAG_DRAGGED : flags & ~FLAG_DRAGGED;
+        nodes.putInt(node * NODE_BYTES + FLAGS, flags);
+    }
+
+    @Override
+    public int getAdjacentCount(int node) {
+        return edgeEnd(node) - edgeOffsets.getInt(node * 4);
+    }
+
+    @Override
+    public int getAdjacent(int node, int k) {
+        return edges.getInt((edgeOffsets.getInt(node * 4) + k) * 4);
+    }
+
+    @Override
+    public String getName(int node) {
+        return readLabel(nodes.getInt(node * NODE_BYTES + NAME));
+    }
+
+    @Override
+    public String getLocation(int node) {
+        return readLabel(nodes.getInt(node * NODE_BYTES + LOCATION));
+    }
+
+    private int edgeEnd(int node) {
+        if (node < lastSource) {
+            return edgeOffsets.getInt((node + 1) * 4);
+        }
+        return node == lastSource ? edgeCount : edgeOffsets.getInt(node * 4);
+    }
+
+    private void checkNode(int node) {
+        if (node < 0 || node >= slotCount) {
+            throw new IndexOutOfBoundsException("Node " + node + " out of range [0, " + slotCount + ")");
+        }
+    }
+
+    private int internLabel(String label) {
+        byte[] bytes = encode(label);
+        int slots = labelTable.capacity() / 4;
+        int slot = hash(bytes) & (slots - 1);
+        int entry;
+        while ((entry = labelTable.getInt(slot * 4)) != 0) {
+            if (labelEquals(entry - 1, bytes)) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & (slots - 1);
+        }
+
+        if (labels.remaining() < bytes.length + 4) {
+            ByteBuffer grown = ByteBuffer.allocateDirect(Math.max(labels.capacity() * 2, labels.position() + bytes.length + 4))
+                    .order(ByteOrder.nativeOrder());
+            labels.flip();
+            grown.put(labels);
+            labels = grown;
+        }
+
+        int position = labels.position();
+        labels.putInt(bytes.length);
+        labels.put(bytes);
+
+        labelTable.putInt(slot * 4, position + 1);
+        labelCount++;
+        if (labelCount * 2 > slots) {
+            growLabelTable();
+        }
+        return position;
+    }
+
+    private void growLabelTable() {
+        int slots = labelTable.capacity() / 4 * 2;
+        ByteBuffer grown = ByteBuffer.allocateDirect(slots * 4).order(ByteOrder.nativeOrder());
+        for (int i = 0; i < labelTable.capacity() / 4; i++) {
+            int entry = labelTable.getInt(i * 4);
+            if (entry != 0) {
+                int slot = pooledHash(entry - 1) & (slots - 1);
+                while (grown.getInt(slot * 4) != 0) {
+                    slot = (slot + 1) & (slots - 1);
+                }
+                grown.putInt(slot * 4, entry);
+            }
+        }
+        labelTable = grown;
+    }
+
+    private boolean labelEquals(int offset, byte[] bytes) {
+        if (labels.getInt(offset) != bytes.length) {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            if (labels.get(offset + 4 + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int pooledHash(int offset) {
+        int length = labels.getInt(offset);
+        int hash = 0x811c9dc5;
+        for (int i = 0; i < length; i++) {
+            hash = (hash ^ (labels.get(offset + 4 + i) & 0xff)) * 0x01000193;
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int hash(byte[] bytes) {
+        int hash = 0x811c9dc5;
+        for (int i = 0; i < bytes.length; i++) {
+            hash = (hash ^ (bytes[i] & 0xff)) * 0x01000193;
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private String readLabel(int offset) {
+        int slot = (offset ^ (offset >>> 8)) & (LABEL_CACHE_SIZE - 1);
+        LabelEntry cached = labelCache[slot];
+        if (cached != null && cached.offset == offset) {
+            return cached.label;
+        }
+
+        int length = labels.getInt(offset);
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = labels.get(offset + 4 + i);
+        }
+        String label;
+        try {
+            label = new String(bytes, CHARSET);
+        } catch (UnsupportedEncodingException e) {
+            throw new RuntimeException(e);
+        }
+        labelCache[slot] = new LabelEntry(offset, label);
+        return label;
+    }
+
+    private static byte[] encode(String label) {
+        try {
+            return label.getBytes(CHARSET);
+        } catch (UnsupportedEncodingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static class LabelEntry {
+        private final int offset;
+        private final String label;
+
+        LabelEntry(int offset, String label) {
+            this.offset = offset;
+            this.label = label;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.prudencio.graphnodeview;
+
+/**
+ * {@link GraphStore} view over a subset of another store's nodes. Every node
+ * adjacent to a node of the subset must also be in the subset, as is the
+ * case for a connected component, or be outside the parent graph. Those
+ * outside nodes keep indexes past size(), as in the parent.
+ */
+public class SubGraphStore implements GraphStore {
+    private GraphStore parent;
+    private int[] nodes;
+    private int start;
+    private int length;
+    private int[] localIndexes;
+
+    /**
+     * @param parent       the store holding the nodes
+     * @param nodes        parent indexes; this view covers the range from
+     *                     start to start + length, and the array may be
+     *                     shared between views over disjoint ranges
+     * @param localIndexes for each parent index, its index in this view; may
+     *                     be shared between views over disjoint subsets
+     */
+    public SubGraphStore(GraphStore parent, int[] nodes, int start, int length, int[] localIndexes) {
+        super();
+        this.parent = parent;
+        this.nodes = nodes;
+        this.start = start;
+        this.length = length;
+        this.localIndexes = localIndexes;
+    }
+
+    /**
+     * @return the index of the given node in the parent store
+     */
+    public int getParentIndex(int node) {
+        if (node < length) {
+            return nodes[start + node];
+        }
+        return parent.size() + node - length;
+    }
+
+    @Override
+    public int size() {
+        return length;
+    }
+
+    @Override
+    public int getId(int node) {
+        return parent.getId(getParentIndex(node));
+    }
+
+    @Override
+    public double getPosX(int node) {
+        return parent.getPosX(getParentIndex(node));
+    }
+
+    @Override
+    public void setPosX(int node, double posX) {
+        parent.setPosX(getParentIndex(node), posX);
+    }
+
+    @Override
+    public double getPosY(int node) {
+        return parent.getPosY(getParentIndex(node));
+    }
+
+    @Override
+    public void setPosY(int node, double posY) {
+        parent.setPosY(getParentIndex(node), posY);
+    }
+
+    @Override
+    public double getDispX(int node) {
+        return parent.getDispX(getParentIndex(node));
+    }
+
+    @Override
+    public void setDispX(int node, double dispX) {
+        parent.setDispX(getParentIndex(node), dispX);
+    }
+
+    @Override
+    public double getDispY(int node) {
+        return parent.getDispY(getParentIndex(node));
+    }
+
+    @Override
+    public void setDispY(int node, double dispY) {
+        parent.setDispY(getParentIndex(node), dispY);
+    }
+
+    @Override
+    public boolean isDragged(int node) {
+        return parent.isDragged(getParentIndex(node));
+    }
+
+    @Override
+    public void setDragged(int node, boolean isDragged) {
+        parent.setDragged(getParentIndex(node), isDragged);
+    }
+
+    @Override
+    public int getAdjacentCount(int node) {
+        return parent.getAdjacentCount(getParentIndex(node));
+    }
+
+    @Override
+    public int getAdjacent(int node, int k) {
+        int adjacent = parent.getAdjacent(getParentIndex(node), k);
+        if (adjacent < parent.size()) {
+            return localIndexes[adjacent];
+        }
+        return length + adjacent - parent.size();
+    }
+
+    @Override
+    public String getName(int node) {
+        return parent.getName(getParentIndex(node));
+    }
+
+    @Override
+    public String getLocation(int node) {
+        return parent.getLocation(getParentIndex(node));
+    }
+}